@@ -0,0 +1,119 @@
+#!/usr/bin/env bash
+# 起動時間のベンチマーク: fast-start 導入前のコミット（baseline）と、このツリーの通常の jar（plain）、
+# fast-start（Spring AOT + AppCDS + ウォームアップ）を比べる。
+#
+#   cd backend && scripts/startup-benchmark.sh [回数]
+#
+# baseline は git worktree で別に取り出してビルドする。既定は fast-start を入れたコミット
+# （このスクリプトを追加したコミット）の親。BASELINE_REF=<コミット> で変えられる。
+#
+# それぞれ「ready になるまで」と「最初の /api/streets が返るまで」の時間（ms）を出す。
+# ready は /actuator/health/readiness が UP になった時点。actuator の無い baseline では
+# HTTP が応答し始めた時点（readiness が 404 を返した時点）を ready とみなす。
+set -euo pipefail
+shopt -s inherit_errexit
+
+RUNS="${1:-5}"
+PORT="${PORT:-18080}"
+STARTUP_TIMEOUT_MS="${STARTUP_TIMEOUT_MS:-120000}"
+JAR="demo-0.0.1-SNAPSHOT.jar"
+cd "$(dirname "$0")/.."
+BACKEND_DIR="$(pwd)"
+REPO_ROOT="$(git rev-parse --show-toplevel)"
+BACKEND_PATH="${BACKEND_DIR#"${REPO_ROOT}"/}"
+
+if [ -z "${BASELINE_REF:-}" ]; then
+  BASELINE_REF="$(git log --diff-filter=A --format=%H -- scripts/startup-benchmark.sh | tail -1)^"
+fi
+BASELINE_SRC="${BACKEND_DIR}/target/baseline-src"
+
+now_ms() {
+  date +%s%3N
+}
+
+cleanup() {
+  git -C "${REPO_ROOT}" worktree remove --force "${BASELINE_SRC}" >/dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+# 引数: 作業ディレクトリ, java の引数...
+# "ready の ms 最初の /api/streets の ms" を出す。失敗したら 0 以外で終わる（JVM は必ず止める）。
+measure() {
+  local dir="$1"
+  shift
+  local start ready first pid code
+  if curl -s -o /dev/null "http://localhost:${PORT}/"; then
+    echo "ポート ${PORT} は既に使われています（前の JVM が残っている？）" >&2
+    exit 1
+  fi
+  start=$(now_ms)
+  (cd "$dir" && exec java "$@") >/dev/null 2>&1 &
+  pid=$!
+  # 途中で失敗しても JVM を残さない（残るとポートを掴んだままになり、次の計測が古いサーバを測ってしまう）
+  trap "kill ${pid} 2>/dev/null; wait ${pid} 2>/dev/null || true" EXIT
+  while :; do
+    code=$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:${PORT}/actuator/health/readiness" || true)
+    if [ "$code" = "200" ] || [ "$code" = "404" ]; then
+      break
+    fi
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "起動に失敗しました: $*" >&2
+      exit 1
+    fi
+    if [ $(($(now_ms) - start)) -gt "${STARTUP_TIMEOUT_MS}" ]; then
+      echo "${STARTUP_TIMEOUT_MS} ms 以内に ready になりませんでした: $*" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  ready=$(now_ms)
+  if ! curl -sf "http://localhost:${PORT}/api/streets" >/dev/null; then
+    echo "/api/streets が失敗しました: $*" >&2
+    exit 1
+  fi
+  first=$(now_ms)
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  trap - EXIT
+  echo "$((ready - start)) $((first - start))"
+}
+
+report() {
+  local label="$1"
+  shift
+  local sum_ready=0 sum_first=0 out r f
+  for _ in $(seq "$RUNS"); do
+    # measure はサブシェルで動くので、終了コードと出力の形を確かめてから足す
+    out=$(measure "$@") || { echo "${label}: 計測に失敗しました" >&2; exit 1; }
+    read -r r f <<< "$out"
+    if ! [[ "$r" =~ ^[0-9]+$ && "$f" =~ ^[0-9]+$ ]]; then
+      echo "${label}: 計測結果が読めません: '${out}'" >&2
+      exit 1
+    fi
+    sum_ready=$((sum_ready + r))
+    sum_first=$((sum_first + f))
+  done
+  printf '%-12s ready %6d ms   first /api/streets %6d ms   (平均, %d 回)\n' \
+    "$label" $((sum_ready / RUNS)) $((sum_first / RUNS)) "$RUNS"
+}
+
+./mvnw -q -B -DskipTests clean package
+mkdir -p target/plain
+cp "target/${JAR}" target/plain/
+
+./mvnw -q -B -DskipTests -Pfast-start package
+
+# baseline: fast-start 導入前のツリーを別ディレクトリに取り出してビルドする（上の clean で消えないよう最後に）
+cleanup
+git -C "${REPO_ROOT}" worktree add --detach "${BASELINE_SRC}" "${BASELINE_REF}" >/dev/null
+(cd "${BASELINE_SRC}/${BACKEND_PATH}" && ./mvnw -q -B -DskipTests clean package)
+mkdir -p target/baseline
+cp "${BASELINE_SRC}/${BACKEND_PATH}/target/${JAR}" target/baseline/
+cleanup
+
+echo "baseline = $(git rev-parse --short "${BASELINE_REF}"), current = $(git rev-parse --short HEAD)"
+echo "$(java -version 2>&1 | head -1), $(nproc) CPU"
+report "baseline" target/baseline -Dserver.port="${PORT}" -jar "${JAR}"
+report "plain" target/plain -Dserver.port="${PORT}" -jar "${JAR}"
+report "fast-start" target/fast-start -Dserver.port="${PORT}" \
+  -XX:SharedArchiveFile=demo.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=prod -jar "${JAR}"
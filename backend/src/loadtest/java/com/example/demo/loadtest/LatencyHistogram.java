@@ -0,0 +1,55 @@
+package com.example.demo.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * レイテンシ（マイクロ秒）をすべて記録し、パーセンタイルと 2 倍刻みのヒストグラムを出す。
+ */
+final class LatencyHistogram {
+
+    private long[] values = new long[1024];
+    private int size;
+
+    synchronized void record(long micros) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = micros;
+    }
+
+    synchronized int count() {
+        return size;
+    }
+
+    /**
+     * p (0..100) パーセンタイル（マイクロ秒）。記録が無ければ 0。
+     */
+    synchronized long percentile(double p) {
+        if (size == 0) return 0;
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(p / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, idx))];
+    }
+
+    /**
+     * [1ms, 2ms), [2ms, 4ms), ... の件数を棒グラフで表す。
+     */
+    synchronized String render() {
+        if (size == 0) return "  (no samples)\n";
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        for (long upper = 1_000; i < size; upper *= 2) {
+            int start = i;
+            while (i < size && sorted[i] < upper) i++;
+            int n = i - start;
+            if (n == 0 && start == 0) continue;
+            int bar = (int) Math.round(50.0 * n / size);
+            sb.append(String.format(Locale.ROOT, "  < %8d ms %8d %s%n", upper / 1_000, n, "#".repeat(bar)));
+        }
+        return sb.toString();
+    }
+}
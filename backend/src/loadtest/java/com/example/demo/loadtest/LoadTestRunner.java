@@ -0,0 +1,316 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.DemoApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * /api/streets の負荷試験。ローカルの Overpass スタブと合成データでアプリを起動し、
+ * 到着率を固定したオープンモデルで段階的に負荷をかけて、レイテンシのヒストグラムとレポートを出す。
+ *
+ *   ./mvnw -Pload-test -DskipTests verify -Dloadtest.rates=5,10,20 -Dloadtest.duration=30
+ *
+ * 設定はすべてシステムプロパティ（loadtest.*）。既定値は {@link Config} を参照。
+ */
+public final class LoadTestRunner {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private LoadTestRunner() {
+    }
+
+    /**
+     * 負荷試験の設定。
+     */
+    record Config(List<Double> rates, int durationSeconds, int warmupSeconds, String path,
+                  int crimeRows, int streetViewRows, int overpassGrid, String recordings,
+                  long stubLatencyMs, long stubJitterMs, double stubFailureRate,
+                  long sloMs, String profile, long seed, Path reportDir) {
+
+        static Config fromSystemProperties() {
+            List<Double> rates = new ArrayList<>();
+            for (String r : System.getProperty("loadtest.rates", "5,10,20").split(",")) {
+                rates.add(Double.parseDouble(r.trim()));
+            }
+            return new Config(
+                    rates,
+                    Integer.getInteger("loadtest.duration", 30),
+                    Integer.getInteger("loadtest.warmup", 10),
+                    System.getProperty("loadtest.path", "/api/streets?window=night"),
+                    Integer.getInteger("loadtest.crime-rows", 1_000),
+                    Integer.getInteger("loadtest.streetview-rows", 1_000),
+                    Integer.getInteger("loadtest.overpass.grid", 20),
+                    System.getProperty("loadtest.overpass.recordings", ""),
+                    Long.getLong("loadtest.stub.latency-ms", 200),
+                    Long.getLong("loadtest.stub.jitter-ms", 100),
+                    Double.parseDouble(System.getProperty("loadtest.stub.failure-rate", "0")),
+                    Long.getLong("loadtest.slo-ms", 5_000),
+                    System.getProperty("loadtest.profile", ""),
+                    Long.getLong("loadtest.seed", 42),
+                    Paths.get(System.getProperty("loadtest.report-dir", "target/loadtest")));
+        }
+    }
+
+    /**
+     * 1段階ぶんの結果。ok は道路が返った応答、errors は接続失敗と 4xx/5xx、empty は 200 でも道路が返らなかった応答
+     * （Overpass 失敗時にアプリが返す [] など）。待ち時間内に返らなかった残り（timeouts）も含めて ok 以外は失敗とし、
+     * レイテンシは成功と分けて記録する。
+     * sendNanos は送信を予定した期間（送信側が遅れればその分長くなる）。スループットはこの期間で割るので、
+     * 応答の遅さ（最後の応答を待つ時間）はスループットではなくレイテンシの判定に出る。
+     */
+    record PhaseResult(double offeredRate, long sent, long ok, long errors, long empty, long sendNanos,
+                       LatencyHistogram latencies, LatencyHistogram failureLatencies) {
+
+        long timeouts() {
+            return sent - ok - errors - empty;
+        }
+
+        long failures() {
+            return sent - ok;
+        }
+
+        double achievedRate() {
+            return ok / (sendNanos / 1e9);
+        }
+
+        double errorRate() {
+            return sent == 0 ? 0 : (double) failures() / sent;
+        }
+
+        boolean throughputSustained() {
+            return errorRate() <= 0.01 && achievedRate() >= 0.95 * offeredRate;
+        }
+
+        boolean latencyWithinSlo(long sloMs) {
+            return latencies.percentile(99) <= sloMs * 1_000;
+        }
+
+        /** エラー率 1% 以下で到着率の 95% 以上をさばけ、成功の p99 が SLO 以内なら「維持できた」とみなす */
+        boolean sustained(long sloMs) {
+            return throughputSustained() && latencyWithinSlo(sloMs);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = Config.fromSystemProperties();
+        Random random = new Random(config.seed());
+
+        Path dataDir = Files.createDirectories(config.reportDir().resolve("data"));
+        SyntheticData.writeCrimeCsv(dataDir.resolve("CrimeScore.csv"), config.crimeRows(), random);
+        SyntheticData.writeStreetViewCsv(dataDir.resolve("StreetViewScore.csv"), config.streetViewRows(), random);
+
+        // 記録したレスポンスの指定があればそれを、無ければ格子状の合成道路網（grid=0 なら同梱の 3 本だけの合成データ）
+        List<byte[]> responses = !config.recordings().isBlank() || config.overpassGrid() <= 0
+                ? loadRecordings(config.recordings())
+                : List.of(SyntheticData.overpassGrid(config.overpassGrid()));
+
+        List<PhaseResult> results = new ArrayList<>();
+        try (OverpassStub stub = new OverpassStub(responses, config.stubLatencyMs(), config.stubJitterMs(),
+                config.stubFailureRate(), config.seed())) {
+            stub.start();
+            try (ConfigurableApplicationContext app = startApp(config, stub, dataDir)) {
+                int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+                URI uri = URI.create("http://localhost:" + port + config.path());
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build();
+
+                if (config.warmupSeconds() > 0) {
+                    System.out.println("Load test: warm-up " + config.warmupSeconds() + "s");
+                    runPhase(client, uri, config.rates().get(0), config.warmupSeconds());
+                }
+                for (double rate : config.rates()) {
+                    System.out.println("Load test: " + rate + " req/s for " + config.durationSeconds() + "s");
+                    results.add(runPhase(client, uri, rate, config.durationSeconds()));
+                }
+            }
+            writeReport(config, results, stub);
+        }
+    }
+
+    private static List<byte[]> loadRecordings(String dir) throws IOException {
+        List<byte[]> out = new ArrayList<>();
+        if (!dir.isBlank()) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(dir), "*.json")) {
+                for (Path f : files) {
+                    out.add(Files.readAllBytes(f));
+                }
+            }
+        }
+        if (out.isEmpty()) {
+            out.add(new ClassPathResource("overpass/synthetic-seattle-small.json").getInputStream().readAllBytes());
+        }
+        return out;
+    }
+
+    /**
+     * キャッシュを切り、Overpass をスタブに、CSV を合成データに向けてアプリを起動する。
+     */
+    private static ConfigurableApplicationContext startApp(Config config, OverpassStub stub, Path dataDir) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--herroute.overpass.endpoints=" + stub.url(),
+                "--herroute.streets.cache-enabled=false",
+                "--herroute.data.dir=" + dataDir.toAbsolutePath()));
+        if (!config.profile().isBlank()) {
+            args.add("--spring.profiles.active=" + config.profile());
+        }
+        return SpringApplication.run(DemoApplication.class, args.toArray(new String[0]));
+    }
+
+    /**
+     * オープンモデル: 応答を待たずに、決まった間隔でリクエストを送り続ける。
+     * レイテンシは「送るはずだった時刻」から測るので、送信側の詰まりも結果に含まれる。
+     */
+    private static PhaseResult runPhase(HttpClient client, URI uri, double rate, int seconds)
+            throws InterruptedException {
+        LatencyHistogram latencies = new LatencyHistogram();
+        LatencyHistogram failureLatencies = new LatencyHistogram();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong empty = new AtomicLong();
+        // 待ち時間を過ぎたら集計を締め、その後に返った応答は数えない（レポート作成中に値が変わらないように）
+        Object lock = new Object();
+        AtomicBoolean closed = new AtomicBoolean();
+        long intervalNanos = (long) (1e9 / rate);
+        long total = (long) (rate * seconds);
+        List<CompletableFuture<?>> inflight = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT).GET().build();
+            inflight.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((res, err) -> {
+                        long micros = (System.nanoTime() - intended) / 1_000;
+                        boolean failed = err != null || res.statusCode() >= 400;
+                        boolean noStreets = !failed && !hasStreets(res.body());
+                        synchronized (lock) {
+                            if (closed.get()) return;
+                            if (failed) {
+                                errors.incrementAndGet();
+                                failureLatencies.record(micros);
+                            } else if (noStreets) {
+                                empty.incrementAndGet();
+                                failureLatencies.record(micros);
+                            } else {
+                                latencies.record(micros);
+                            }
+                        }
+                    }));
+        }
+        // 送信期間の終わり（送信側が遅れたらその分も含む）。応答の待ち時間は含めない
+        long sendNanos = Math.max(System.nanoTime(), start + total * intervalNanos) - start;
+        try {
+            CompletableFuture.allOf(inflight.toArray(new CompletableFuture[0]))
+                    .get(REQUEST_TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+        } catch (ExecutionException ignore) {
+            // 失敗は whenComplete で数えている
+        } catch (TimeoutException e) {
+            System.err.println("Load test: requests still in flight after " + REQUEST_TIMEOUT + ", counting them as timeouts");
+        }
+        synchronized (lock) {
+            closed.set(true);
+            return new PhaseResult(rate, total, latencies.count(), errors.get(), empty.get(), sendNanos,
+                    latencies, failureLatencies);
+        }
+    }
+
+    /**
+     * 応答が空でない JSON 配列か。Overpass が失敗するとアプリは 200 で [] を返すので、それも失敗に数える。
+     */
+    static boolean hasStreets(String body) {
+        if (body == null) return false;
+        int i = 0;
+        int n = body.length();
+        while (i < n && Character.isWhitespace(body.charAt(i))) i++;
+        if (i == n || body.charAt(i) != '[') return false;
+        int end = n - 1;
+        while (end > i && Character.isWhitespace(body.charAt(end))) end--;
+        if (body.charAt(end) != ']') return false;
+        for (int j = i + 1; j < end; j++) {
+            if (!Character.isWhitespace(body.charAt(j))) return true;
+        }
+        return false;
+    }
+
+    private static void writeReport(Config config, List<PhaseResult> results, OverpassStub stub) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# /api/streets load test ").append(LocalDateTime.now()).append('\n');
+        sb.append(String.format(Locale.ROOT,
+                "path=%s crimeRows=%d streetViewRows=%d overpassGrid=%d stub=%d+%dms failure=%.2f slo=%dms profile=%s seed=%d%n",
+                config.path(), config.crimeRows(), config.streetViewRows(), config.overpassGrid(),
+                config.stubLatencyMs(), config.stubJitterMs(), config.stubFailureRate(), config.sloMs(),
+                config.profile().isBlank() ? "default" : config.profile(), config.seed()));
+        sb.append(String.format(Locale.ROOT, "overpass stub: served=%d injectedFailures=%d%n%n",
+                stub.served(), stub.failed()));
+
+        double maxSustained = 0;
+        for (PhaseResult r : results) {
+            LatencyHistogram h = r.latencies();
+            sb.append(String.format(Locale.ROOT,
+                    "offered %.1f req/s: sent=%d ok=%d errors=%d empty=%d timeouts=%d (%.1f%% failed) achieved=%.1f req/s%n",
+                    r.offeredRate(), r.sent(), r.ok(), r.errors(), r.empty(), r.timeouts(), r.errorRate() * 100,
+                    r.achievedRate()));
+            sb.append(String.format(Locale.ROOT,
+                    "  ok:     p50=%.1fms p90=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms%n",
+                    h.percentile(50) / 1e3, h.percentile(90) / 1e3, h.percentile(99) / 1e3,
+                    h.percentile(99.9) / 1e3, h.percentile(100) / 1e3));
+            LatencyHistogram f = r.failureLatencies();
+            if (f.count() > 0) {
+                sb.append(String.format(Locale.ROOT,
+                        "  failed: p50=%.1fms p99=%.1fms max=%.1fms%n",
+                        f.percentile(50) / 1e3, f.percentile(99) / 1e3, f.percentile(100) / 1e3));
+            }
+            sb.append(h.render()).append('\n');
+            if (!r.throughputSustained()) {
+                sb.append("  not sustained: error rate or throughput\n");
+            } else if (!r.latencyWithinSlo(config.sloMs())) {
+                sb.append(String.format(Locale.ROOT, "  not sustained: p99 over SLO %dms%n", config.sloMs()));
+            }
+            if (r.sustained(config.sloMs())) maxSustained = Math.max(maxSustained, r.offeredRate());
+        }
+        sb.append(maxSustained > 0
+                ? String.format(Locale.ROOT, "max sustained throughput: %.1f req/s%n", maxSustained)
+                : "max sustained throughput: none of the phases was sustained\n");
+
+        String report = sb.toString();
+        System.out.print(report);
+        Path file = config.reportDir().resolve(
+                "report-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".txt");
+        Files.writeString(file, report, StandardCharsets.UTF_8);
+        System.out.println("Report: " + file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ローカルで動く Overpass API のスタブ。記録済みのレスポンスを順番に返す。
+ * 応答遅延（固定 + ゆらぎ）と失敗（504 / 429）を確率で注入できる。
+ */
+class OverpassStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<byte[]> responses;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double failureRate;
+    private final Random random;
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    OverpassStub(List<byte[]> responses, long latencyMs, long jitterMs, double failureRate, long seed)
+            throws IOException {
+        if (responses.isEmpty()) {
+            throw new IllegalArgumentException("No recorded Overpass responses");
+        }
+        this.responses = responses;
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.failureRate = failureRate;
+        this.random = new Random(seed);
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/api/interpreter", this::handle);
+        this.server.setExecutor(executor);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort() + "/api/interpreter";
+    }
+
+    long served() {
+        return served.get();
+    }
+
+    long failed() {
+        return failed.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.readAllBytes(); // クエリの中身は見ない
+        }
+        long delay;
+        boolean fail;
+        synchronized (random) {
+            delay = latencyMs + (jitterMs > 0 ? (long) (random.nextDouble() * jitterMs) : 0);
+            fail = random.nextDouble() < failureRate;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        long n = served.getAndIncrement();
+        if (fail) {
+            failed.incrementAndGet();
+            // 本物の Overpass でよく返るのはタイムアウト(504)と混雑(429)
+            exchange.sendResponseHeaders(n % 2 == 0 ? 504 : 429, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = responses.get((int) (n % responses.size()));
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.loadtest;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 負荷試験用の合成データ。CrimeDataService が Overpass に問い合わせる範囲（シアトル中心 ±0.01 度）に点を撒く。
+ */
+final class SyntheticData {
+
+    static final double CENTER_LAT = 47.6062;
+    static final double CENTER_LON = -122.3321;
+    static final double RADIUS_DEG = 0.01;
+
+    private SyntheticData() {
+    }
+
+    /**
+     * CrimeScore.csv と同じ形式（latitude,longitude,score,time）。
+     */
+    static void writeCrimeCsv(Path file, int rows, Random random) throws IOException {
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("latitude,longitude,score,time\n");
+            for (int i = 0; i < rows; i++) {
+                w.write(String.format(Locale.ROOT, "%.7f,%.7f,%.1f,%02d:%02d%n",
+                        lat(random), lon(random), random.nextInt(11) / 10.0,
+                        random.nextInt(24), random.nextInt(60)));
+            }
+        }
+    }
+
+    /**
+     * Street View 解析CSV と同じ列名（latitude,longitude,normalized_discomfort,timestamp）。
+     */
+    static void writeStreetViewCsv(Path file, int rows, Random random) throws IOException {
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("latitude,longitude,normalized_discomfort,timestamp\n");
+            for (int i = 0; i < rows; i++) {
+                w.write(String.format(Locale.ROOT, "%.7f,%.7f,%.4f,2024-05-01T%02d:%02d:00%n",
+                        lat(random), lon(random), random.nextDouble(),
+                        random.nextInt(24), random.nextInt(60)));
+            }
+        }
+    }
+
+    /**
+     * size × size の格子状の道路網を Overpass の JSON 形式で作る（東西 size 本 + 南北 size 本）。
+     * OSM と同じく道路は交差点ごとに別の way に分かれる（1 区画 1 way、計 2 × size × (size - 1) 本）ので、
+     * 採点に加えて同名セグメントの連結も負荷に含まれる。
+     */
+    static byte[] overpassGrid(int size) {
+        StringBuilder sb = new StringBuilder("{\"version\":0.6,\"generator\":\"load-test (synthetic grid)\",\"elements\":[");
+        double step = 2 * RADIUS_DEG / Math.max(1, size - 1);
+        boolean first = true;
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                if (!first) sb.append(',');
+                first = false;
+                sb.append(String.format(Locale.ROOT, "{\"type\":\"node\",\"id\":%d,\"lat\":%.7f,\"lon\":%.7f}",
+                        nodeId(size, r, c),
+                        CENTER_LAT - RADIUS_DEG + r * step,
+                        CENTER_LON - RADIUS_DEG + c * step));
+            }
+        }
+        long wayId = 1;
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c + 1 < size; c++) {
+                appendWay(sb, wayId++, nodeId(size, r, c), nodeId(size, r, c + 1), "Synthetic St " + r);
+            }
+        }
+        for (int c = 0; c < size; c++) {
+            for (int r = 0; r + 1 < size; r++) {
+                appendWay(sb, wayId++, nodeId(size, r, c), nodeId(size, r + 1, c), "Synthetic Ave " + c);
+            }
+        }
+        sb.append("]}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendWay(StringBuilder sb, long id, long from, long to, String name) {
+        sb.append(",{\"type\":\"way\",\"id\":").append(id)
+                .append(",\"nodes\":[").append(from).append(',').append(to)
+                .append("],\"tags\":{\"highway\":\"residential\",\"name\":\"").append(name).append("\"}}");
+    }
+
+    private static long nodeId(int size, int r, int c) {
+        return 1_000_000L + (long) r * size + c;
+    }
+
+    private static double lat(Random random) {
+        return CENTER_LAT + (random.nextDouble() * 2 - 1) * RADIUS_DEG;
+    }
+
+    private static double lon(Random random) {
+        return CENTER_LON + (random.nextDouble() * 2 - 1) * RADIUS_DEG;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo;
+
+import com.example.demo.model.CrimeData;
+import com.example.demo.model.StreetData;
+import com.example.demo.service.CrimeDataService;
+import com.example.demo.service.StreetLayers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 起動直後（readiness が ACCEPTING_TRAFFIC になる前）に道路スコアを計算してスナップショットを作り、
+ * CSV 読込・道路の採点（キャッシュを通さない経路）・JSON 変換を数回まわして JIT を温める。
+ * herroute.startup.warmup=true のときだけ動く（prod プロファイル）。スナップショットはその後も定期的に作り直す。
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    @Autowired
+    private CrimeDataService crimeDataService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${herroute.startup.warmup:false}")
+    private boolean enabled;
+
+    @Value("${herroute.startup.warmup-iterations:3}")
+    private int iterations;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        try {
+            StreetLayers layers = crimeDataService.refreshStreetsSnapshot();
+            List<StreetData> streets = layers != null ? layers.getStreets(null) : List.of();
+            // スナップショットはキャッシュから即返ることが多いので、採点処理は別に回す（Overpass は叩かない）
+            int scored = 0;
+            for (int i = 0; i < iterations; i++) {
+                List<CrimeData> streetView = crimeDataService.loadStreetViewData();
+                List<CrimeData> crime = crimeDataService.loadCrimeData();
+                scored = crimeDataService.warmUpScoring(streetView, crime);
+                objectMapper.writeValueAsBytes(streets);
+            }
+            System.out.println("Warm-up: snapshot " + streets.size() + " segments, scored " + scored
+                    + " segments x " + iterations + ", " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            // ウォームアップ失敗で起動を止めない（リクエスト時の計算にフォールバックする）
+            System.err.println("Warm-up failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * スナップショットを herroute.streets.snapshot-refresh ごとに作り直す（CSV の更新や Overpass の復旧を反映する）。
+     * 道路が取れなかったときは前のスナップショットを残す。
+     */
+    @Scheduled(initialDelayString = "${herroute.streets.snapshot-refresh:PT1H}",
+            fixedDelayString = "${herroute.streets.snapshot-refresh:PT1H}")
+    public void refreshSnapshot() {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        try {
+            StreetLayers layers = crimeDataService.refreshStreetsSnapshot();
+            System.out.println("Snapshot refresh: " + (layers != null ? layers.getStreets(null).size() : 0)
+                    + " segments, " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            System.err.println("Snapshot refresh failed: " + e.getMessage());
+        }
+    }
+}
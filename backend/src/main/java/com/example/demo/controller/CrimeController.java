@@ -4,7 +4,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import com.example.demo.model.StreetData;
+import com.example.demo.model.StreetScoreStats;
 import com.example.demo.service.CrimeDataService;
+import com.example.demo.service.StreetLayers;
+import com.example.demo.service.StreetScoreDistribution;
 import org.springframework.beans.factory.annotation.Autowired;
 import java.util.List;
 
@@ -16,17 +19,42 @@ public class CrimeController {
     @Autowired
     private CrimeDataService crimeDataService;
 
+    @Autowired
+    private StreetScoreDistribution streetScoreDistribution;
+
+    /**
+     * 道路の危険度。window（例: day / night）を指定すると、その時間帯のレイヤーを返す。
+     */
     @GetMapping("/streets")
-    public ResponseEntity<List<StreetData>> getDynamicStreetData() {
+    public ResponseEntity<List<StreetData>> getDynamicStreetData(@RequestParam(required = false) String window) {
         try {
-            List<StreetData> result = crimeDataService.calculateStreetScores(
-                    crimeDataService.loadStreetViewData(),
-                    crimeDataService.loadCrimeData()
-            );
-            return ResponseEntity.ok(result);
+            StreetLayers layers = crimeDataService.getStreetsSnapshot();
+            if (layers == null) {
+                layers = crimeDataService.calculateStreetLayers(
+                        crimeDataService.loadStreetViewData(),
+                        crimeDataService.loadCrimeData()
+                );
+            }
+            if (window != null && !layers.hasWindow(window)) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(layers.getStreets(window));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 道路スコアの分布と色分けの閾値。道路リストの再計算はしない。
+     * tile（例: 15/5241/11442）を指定するとそのタイルの分布を返す。
+     */
+    @GetMapping("/streets/stats")
+    public ResponseEntity<StreetScoreStats> getStreetScoreStats(@RequestParam(required = false) String tile) {
+        StreetScoreStats stats = streetScoreDistribution.stats(tile);
+        if (stats == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(stats);
+    }
+}
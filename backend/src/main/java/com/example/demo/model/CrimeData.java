@@ -1,9 +1,14 @@
 package com.example.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class CrimeData {
     private double latitude;
     private double longitude;
     private double crimeScore;
+    /** 発生・撮影時刻の時（0〜23）。CSV に時刻が無ければ null（全時間帯に数える） */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer hour;
 
     // --- Getter と Setter ---
 
@@ -30,4 +35,12 @@ public class CrimeData {
     public void setCrimeScore(double crimeScore) {
         this.crimeScore = crimeScore;
     }
+
+    public Integer getHour() {
+        return hour;
+    }
+
+    public void setHour(Integer hour) {
+        this.hour = hour;
+    }
 }
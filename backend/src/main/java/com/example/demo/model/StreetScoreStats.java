@@ -0,0 +1,107 @@
+package com.example.demo.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /api/streets/stats の応答。道路スコアの分布と、現在の色分けの閾値を返す。
+ */
+public class StreetScoreStats {
+    private String region;
+    private String tile;
+    private long count;
+    private double rangeMin;
+    private double rangeMax;
+    /**
+     * 色の境目。境目の分位点が入るバケットの下端なので、実際の分位点は [閾値, 閾値 + thresholdErrorBound) にある。
+     * 色分けもバケット単位なので、境目と同じバケットに入るスコアは境目より小さくても上の色になる。
+     */
+    private Map<String, Double> thresholds;
+    /** 閾値と色分けの誤差の上限（スケッチのバケット幅） */
+    private double thresholdErrorBound;
+    /** histogram の1本あたりの幅（thresholdErrorBound より粗い） */
+    private double bucketWidth;
+    private List<Long> histogram;
+    private Map<String, Long> tiles;
+
+    // Getter & Setter
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public String getTile() {
+        return tile;
+    }
+
+    public void setTile(String tile) {
+        this.tile = tile;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getRangeMin() {
+        return rangeMin;
+    }
+
+    public void setRangeMin(double rangeMin) {
+        this.rangeMin = rangeMin;
+    }
+
+    public double getRangeMax() {
+        return rangeMax;
+    }
+
+    public void setRangeMax(double rangeMax) {
+        this.rangeMax = rangeMax;
+    }
+
+    public Map<String, Double> getThresholds() {
+        return thresholds;
+    }
+
+    public void setThresholds(Map<String, Double> thresholds) {
+        this.thresholds = thresholds;
+    }
+
+    public double getThresholdErrorBound() {
+        return thresholdErrorBound;
+    }
+
+    public void setThresholdErrorBound(double thresholdErrorBound) {
+        this.thresholdErrorBound = thresholdErrorBound;
+    }
+
+    public double getBucketWidth() {
+        return bucketWidth;
+    }
+
+    public void setBucketWidth(double bucketWidth) {
+        this.bucketWidth = bucketWidth;
+    }
+
+    public List<Long> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(List<Long> histogram) {
+        this.histogram = histogram;
+    }
+
+    public Map<String, Long> getTiles() {
+        return tiles;
+    }
+
+    public void setTiles(Map<String, Long> tiles) {
+        this.tiles = tiles;
+    }
+}
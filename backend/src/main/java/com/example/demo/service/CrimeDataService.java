@@ -3,6 +3,9 @@ package com.example.demo.service;
 import com.example.demo.model.CrimeData;
 import com.example.demo.model.StreetData;
 import com.opencsv.CSVReader;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.ResponseEntity;
@@ -30,13 +33,47 @@ public class CrimeDataService {
     private static final int OVERPASS_CONNECT_TIMEOUT_MS = 25_000;
     private static final int OVERPASS_READ_TIMEOUT_MS = 90_000;
 
+    @Autowired
+    private StreetScoreDistribution scoreDistribution;
+
+    /** 時間帯レイヤーの定義（例: day=6-18,night=18-6） */
+    @Value("${herroute.time-windows:day=6-18,night=18-6}")
+    private String timeWindowSpec;
+
+    /** 起動時に timeWindowSpec を読んだ結果（設定が不正なら起動に失敗させる） */
+    private List<TimeWindow> timeWindows;
+
+    /** 起動時のウォームアップで作り、定期的に作り直す道路レイヤーのスナップショット（無ければリクエストごとに計算する） */
+    private volatile StreetLayers streetsSnapshot;
+
+    /** キャッシュ由来で全時間帯が同じレイヤーになることは1回だけログに出す */
+    private volatile boolean identicalLayersLogged;
+
     private final RestTemplate restTemplate = createOverpassRestTemplate();
     private final ObjectMapper mapper = new ObjectMapper();
-    private final List<String> overpassEndpoints = List.of(
-            "https://overpass-api.de/api/interpreter",
-            "https://overpass.kumi.systems/api/interpreter",
-            "https://overpass.openstreetmap.ru/api/interpreter"
-    );
+
+    /** 上から順に試す Overpass API のエンドポイント（負荷試験ではスタブに差し替える） */
+    @Value("${herroute.overpass.endpoints}")
+    private List<String> overpassEndpoints;
+
+    /** false なら data/cached_streets.json を使わず、毎回 Overpass から計算する */
+    @Value("${herroute.streets.cache-enabled:true}")
+    private boolean cacheEnabled;
+
+    /** CrimeScore.csv / StreetViewScore.csv を classpath より優先して読むディレクトリ（任意） */
+    @Value("${herroute.data.dir:}")
+    private String dataDir;
+
+    /**
+     * 採点結果。windowScores[i] は streets.get(i) の時間帯ごとのスコア（添字は timeWindows と同じ）。
+     * キャッシュのように時間帯スコアが無いときは null。
+     */
+    record ScoredStreets(List<StreetData> streets, double[][] windowScores) {
+
+        static ScoredStreets withoutWindows(List<StreetData> streets) {
+            return new ScoredStreets(streets, null);
+        }
+    }
 
     private static RestTemplate createOverpassRestTemplate() {
         SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
@@ -45,12 +82,53 @@ public class CrimeDataService {
         return new RestTemplate(factory);
     }
 
+    @PostConstruct
+    void initTimeWindows() {
+        try {
+            timeWindows = List.copyOf(TimeWindow.parse(timeWindowSpec));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid herroute.time-windows: " + e.getMessage(), e);
+        }
+    }
+
+    public StreetLayers getStreetsSnapshot() {
+        return streetsSnapshot;
+    }
+
+    /**
+     * CSV を読み直して道路スコア（全時間帯レイヤー）を計算し、スナップショットを差し替える。
+     * 道路が1本も取れなかったとき（Overpass が失敗してキャッシュも無いなど）は差し替えず、
+     * 前のスナップショットを返す。起動時なら null のままなので、リクエストごとの計算にフォールバックする。
+     */
+    public StreetLayers refreshStreetsSnapshot() {
+        StreetLayers layers = calculateStreetLayers(loadStreetViewData(), loadCrimeData());
+        if (layers.getStreets(null).isEmpty()) {
+            System.err.println("Streets snapshot: no segments, keeping "
+                    + (streetsSnapshot == null ? "per-request calculation" : "previous snapshot"));
+            return streetsSnapshot;
+        }
+        streetsSnapshot = layers;
+        return layers;
+    }
+
     /**
      * Street View 画像解析由来のスコア（normalized_discomfort / overall_discomfort）を読む。
      * 読めるソースが無い場合は空リストを返す。
      */
     public List<CrimeData> loadStreetViewData() {
         List<CrimeData> list = new ArrayList<>();
+        File configured = dataDirFile("StreetViewScore.csv");
+        if (configured != null) {
+            try (CSVReader reader = new CSVReader(new FileReader(configured))) {
+                parseStreetViewCsv(reader, list);
+            } catch (Exception e) {
+                System.err.println("StreetView CSV 読込失敗 (data dir): " + e.getMessage());
+            }
+            if (!list.isEmpty()) {
+                System.out.println("Street View スコア件数 (data dir): " + list.size());
+                return list;
+            }
+        }
         try {
             File dir = new File("../analyzer/yolo/outputs");
             if (dir.isDirectory()) {
@@ -91,12 +169,14 @@ public class CrimeDataService {
     }
 
     /**
-     * 警察の犯罪データ（CrimeScore.csv）を読む。形式: latitude, longitude, score
+     * 警察の犯罪データ（CrimeScore.csv）を読む。形式: latitude, longitude, score[, time]
      */
     public List<CrimeData> loadCrimeData() {
         List<CrimeData> list = new ArrayList<>();
-        try (CSVReader reader = new CSVReader(
-                new InputStreamReader(new ClassPathResource("data/CrimeScore.csv").getInputStream()))) {
+        File configured = dataDirFile("CrimeScore.csv");
+        try (CSVReader reader = new CSVReader(configured != null
+                ? new FileReader(configured)
+                : new InputStreamReader(new ClassPathResource("data/CrimeScore.csv").getInputStream()))) {
             String[] row;
             reader.readNext(); // ヘッダーをスキップ
             while ((row = reader.readNext()) != null) {
@@ -106,6 +186,7 @@ public class CrimeDataService {
                     d.setLatitude(Double.parseDouble(row[0]));
                     d.setLongitude(Double.parseDouble(row[1]));
                     d.setCrimeScore(Double.parseDouble(row[2]));
+                    if (row.length > 3) d.setHour(parseHour(row[3]));
                     list.add(d);
                 } catch (NumberFormatException ignore) {
                 }
@@ -117,8 +198,18 @@ public class CrimeDataService {
         return list;
     }
 
+    /**
+     * herroute.data.dir が設定されていて、そこに name のファイルがあれば返す。
+     */
+    private File dataDirFile(String name) {
+        if (dataDir == null || dataDir.isBlank()) return null;
+        File f = new File(dataDir, name);
+        return f.isFile() ? f : null;
+    }
+
     /**
      * Street View 解析CSVを読み込み、normalized_discomfort（なければ overall_discomfort）をスコアとして使う。
+     * time / timestamp / hour 列があれば撮影時刻の時も読む。
      */
     private void parseStreetViewCsv(CSVReader reader, List<CrimeData> out) throws Exception {
         String[] header = reader.readNext(); // ヘッダー
@@ -126,7 +217,7 @@ public class CrimeDataService {
             return;
         }
 
-        int latIdx = -1, lonIdx = -1, scoreIdx = -1;
+        int latIdx = -1, lonIdx = -1, scoreIdx = -1, timeIdx = -1;
         for (int i = 0; i < header.length; i++) {
             switch (header[i]) {
                 case "latitude" -> latIdx = i;
@@ -136,6 +227,7 @@ public class CrimeDataService {
                     // normalized が無ければ overall を代用
                     if (scoreIdx == -1) scoreIdx = i;
                 }
+                case "time", "timestamp", "hour" -> timeIdx = i;
                 default -> {
                 }
             }
@@ -153,17 +245,57 @@ public class CrimeDataService {
                 d.setLatitude(Double.parseDouble(row[latIdx]));
                 d.setLongitude(Double.parseDouble(row[lonIdx]));
                 d.setCrimeScore(Double.parseDouble(row[scoreIdx]));
+                if (timeIdx >= 0 && timeIdx < row.length) d.setHour(parseHour(row[timeIdx]));
                 out.add(d);
             } catch (NumberFormatException ignore) {
             }
         }
     }
 
+    /**
+     * "21", "21:30", "2024-05-01T21:30:00", "2024-05-01 21:30" などから時（0〜23）を取り出す。読めなければ null。
+     * pandas が欠損のある時刻列を書き出すと "21.0" になるので、小数も時として読む。
+     */
+    static Integer parseHour(String value) {
+        if (value == null || value.isBlank()) return null;
+        String v = value.trim();
+        int sep = v.indexOf('T');
+        if (sep < 0) sep = v.indexOf(' ');
+        if (sep >= 0) v = v.substring(sep + 1);
+        int colon = v.indexOf(':');
+        if (colon >= 0) v = v.substring(0, colon);
+        v = v.trim();
+        try {
+            int hour = Integer.parseInt(v);
+            return hour >= 0 && hour < 24 ? hour : null;
+        } catch (NumberFormatException e) {
+            // "21.0" など
+        }
+        try {
+            double hour = Double.parseDouble(v);
+            return hour >= 0 && hour < 24 ? (int) Math.floor(hour) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /**
      * Street View スコアと警察の犯罪データの両方を使い、
      * 道路ごとに二つのスコアを平均した値を新たな危険度スコアとして地図表示に使う。
      */
     public List<StreetData> calculateStreetScores(List<CrimeData> streetViewScores, List<CrimeData> crimeScores) {
+        return calculateStreetLayers(streetViewScores, crimeScores).getStreets(null);
+    }
+
+    /**
+     * 全時間帯のスコアと、設定した時間帯（herroute.time-windows）ごとのスコアを、データを1回なめるだけでまとめて計算する。
+     */
+    public StreetLayers calculateStreetLayers(List<CrimeData> streetViewScores, List<CrimeData> crimeScores) {
+        return buildLayers(scoreStreets(streetViewScores, crimeScores, timeWindows), timeWindows);
+    }
+
+    private ScoredStreets scoreStreets(List<CrimeData> streetViewScores, List<CrimeData> crimeScores,
+                                          List<TimeWindow> windows) {
         boolean useCachedOnly = "true".equalsIgnoreCase(System.getenv("USE_CACHED_STREETS"))
                 || "true".equalsIgnoreCase(System.getProperty("herroute.use.cached.streets"));
 
@@ -175,17 +307,16 @@ public class CrimeDataService {
             } else {
                 System.out.println("Streets: using cached data (" + cached.size() + " segments), skipping Overpass");
             }
-            return cached;
+            return ScoredStreets.withoutWindows(cached);
         }
         if (useCachedOnly) {
             System.err.println("USE_CACHED_STREETS=true but cache empty, returning []");
-            return Collections.emptyList();
+            return ScoredStreets.withoutWindows(Collections.emptyList());
         }
 
         final double centerLat = 47.6062;   // Seattle
         final double centerLon = -122.3321;
         final double radiusDeg = 0.01;
-        final double threshold = 200;
 
         String query = String.format(
                 "[out:json][timeout:60];(" +
@@ -219,10 +350,10 @@ public class CrimeDataService {
         if (body == null) {
             if (lastError != null) lastError.printStackTrace();
             System.err.println("Overpass: all endpoints failed, trying cached fallback");
-            return loadCachedStreets();
+            return ScoredStreets.withoutWindows(loadCachedStreets());
         }
 
-        List<StreetData> result = new ArrayList<>();
+        List<StreetData> ways = new ArrayList<>();
         try {
             JsonNode root = mapper.convertValue(body, JsonNode.class);
             if (root.has("remark")) {
@@ -235,7 +366,7 @@ public class CrimeDataService {
                 try {
                     System.err.println("Overpass error: " + root.path("error").asText());
                 } catch (Exception ignored) {}
-                return loadCachedStreets();
+                return ScoredStreets.withoutWindows(loadCachedStreets());
             }
 
             Map<String, double[]> nodes = new HashMap<>();
@@ -262,119 +393,191 @@ public class CrimeDataService {
 
                 if (pts.size() < 2) return;
 
-                double sumSv = 0;
-                int nSv = 0;
-                double sumCrime = 0;
-                int nCrime = 0;
-                List<CrimeData> near = new ArrayList<>();
-                if (streetViewScores != null) {
-                    for (CrimeData c : streetViewScores) {
-                        if (distanceToStreet(c.getLatitude(), c.getLongitude(), pts) < threshold) {
-                            sumSv += c.getCrimeScore();
-                            nSv++;
-                            near.add(c);
-                        }
-                    }
-                }
-                if (crimeScores != null) {
-                    for (CrimeData c : crimeScores) {
-                        if (distanceToStreet(c.getLatitude(), c.getLongitude(), pts) < threshold) {
-                            sumCrime += c.getCrimeScore();
-                            nCrime++;
-                            near.add(c);
-                        }
-                    }
-                }
-
-                double avg;
-                if (nSv > 0 && nCrime > 0) {
-                    avg = (sumSv / nSv + sumCrime / nCrime) / 2.0;
-                } else if (nSv > 0) {
-                    avg = sumSv / nSv;
-                } else if (nCrime > 0) {
-                    avg = sumCrime / nCrime;
-                } else {
-                    return;
-                }
-
-                StreetData street = new StreetData();
-                street.setStreetId(el.path("id").asText());
-                street.setStreetName(el.path("tags").path("name").asText("未命名の道路"));
-                street.setCoordinates(pts);
-                street.setAverageCrimeScore(avg);
-                street.setCrimePoints(near);
-
-                result.add(street);
+                StreetData way = new StreetData();
+                way.setStreetId(el.path("id").asText());
+                way.setStreetName(el.path("tags").path("name").asText("未命名の道路"));
+                way.setCoordinates(pts);
+                ways.add(way);
             });
 
         } catch (Exception e) {
             e.printStackTrace();
         }
 
+        ScoredStreets result = scoreWays(ways, streetViewScores, crimeScores, windows);
+
         // 候補1: 同じ道路名で端点がつながっているセグメントを1本の折れ線にまとめる
-        List<StreetData> merged = mergeConnectedSegmentsByName(result);
-        if (merged.isEmpty() && !result.isEmpty()) {
+        ScoredStreets merged = mergeConnectedSegmentsByName(result);
+        if (merged.streets().isEmpty() && !result.streets().isEmpty()) {
             System.err.println("Streets: no segments with crime/SV data in range");
-        } else if (!merged.isEmpty()) {
-            System.out.println("Streets: returning " + merged.size() + " segments for map");
+        } else if (!merged.streets().isEmpty()) {
+            System.out.println("Streets: returning " + merged.streets().size() + " segments for map");
         }
 
         // パーセンタイルに基づいて色分け（上位20%: 赤, 次の20%: オレンジ, ...）
-        if (!merged.isEmpty()) {
-            List<Double> scores = new ArrayList<>();
-            for (StreetData s : merged) {
-                scores.add(s.getAverageCrimeScore());
-            }
-            Collections.sort(scores); // 昇順
-            int n = scores.size();
-            if (n > 1) {
-                double tRed = scores.get((int) Math.floor(0.8 * (n - 1)));   // 上位20%の境目
-                double tOrange = scores.get((int) Math.floor(0.6 * (n - 1)));
-                double tYellow = scores.get((int) Math.floor(0.4 * (n - 1)));
-                double tLightGreen = scores.get((int) Math.floor(0.2 * (n - 1)));
-
-                for (StreetData s : merged) {
-                    double v = s.getAverageCrimeScore();
-                    if (v >= tRed) {
-                        s.setColor("#b22222");      // 濃い赤（危険度高）
-                    } else if (v >= tOrange) {
-                        s.setColor("#e67e00");     // 濃いオレンジ
-                    } else if (v >= tYellow) {
-                        s.setColor("#c9a227");     // 濃い黄
-                    } else if (v >= tLightGreen) {
-                        s.setColor("#2e8b57");     // 濃い黄緑
-                    } else {
-                        s.setColor("#006400");     // 濃い緑（危険度低）
-                    }
-                }
-            } else {
-                // 1件しかない場合は中間色にしておく
-                merged.get(0).setColor("#c9a227");
-            }
+        // 分布はスケッチで持ち、スコアが変わった道路だけを反映する
+        if (!merged.streets().isEmpty()) {
+            scoreDistribution.update(merged.streets());
+            scoreDistribution.assignColors(merged.streets());
         }
-        if (merged.isEmpty()) {
+        if (merged.streets().isEmpty()) {
             List<StreetData> cachedAfterMerge = loadCachedStreets();
             if (!cachedAfterMerge.isEmpty()) {
                 System.out.println("Streets: using cached fallback (" + cachedAfterMerge.size() + " segments)");
-                return cachedAfterMerge;
+                return ScoredStreets.withoutWindows(cachedAfterMerge);
             }
         }
         return merged;
     }
 
+    /**
+     * 道路形状ごとに、近傍の Street View スコア・犯罪スコアを全時間帯と時間帯別にまとめて集計する。
+     * 近傍にデータが無い道路は含めない。
+     */
+    private ScoredStreets scoreWays(List<StreetData> ways, List<CrimeData> streetViewScores,
+                                       List<CrimeData> crimeScores, List<TimeWindow> windows) {
+        final double threshold = 200;
+        List<StreetData> result = new ArrayList<>();
+        List<double[]> resultWindowScores = new ArrayList<>();
+        for (StreetData way : ways) {
+            List<StreetData.Point> pts = way.getCoordinates();
+            if (pts == null || pts.size() < 2) continue;
+
+            double sumSv = 0;
+            int nSv = 0;
+            double sumCrime = 0;
+            int nCrime = 0;
+            // 時間帯ごとの合計も同じループで数える
+            int k = windows.size();
+            double[] sumSvW = new double[k];
+            int[] nSvW = new int[k];
+            double[] sumCrimeW = new double[k];
+            int[] nCrimeW = new int[k];
+            List<CrimeData> near = new ArrayList<>();
+            if (streetViewScores != null) {
+                for (CrimeData c : streetViewScores) {
+                    if (distanceToStreet(c.getLatitude(), c.getLongitude(), pts) < threshold) {
+                        sumSv += c.getCrimeScore();
+                        nSv++;
+                        addToWindows(windows, c, sumSvW, nSvW);
+                        near.add(c);
+                    }
+                }
+            }
+            if (crimeScores != null) {
+                for (CrimeData c : crimeScores) {
+                    if (distanceToStreet(c.getLatitude(), c.getLongitude(), pts) < threshold) {
+                        sumCrime += c.getCrimeScore();
+                        nCrime++;
+                        addToWindows(windows, c, sumCrimeW, nCrimeW);
+                        near.add(c);
+                    }
+                }
+            }
+
+            double avg = combineScores(sumSv, nSv, sumCrime, nCrime);
+            if (Double.isNaN(avg)) {
+                continue;
+            }
+            double[] windowScores = new double[k];
+            for (int w = 0; w < k; w++) {
+                double v = combineScores(sumSvW[w], nSvW[w], sumCrimeW[w], nCrimeW[w]);
+                // その時間帯に近傍データが無ければ全時間帯の値を使う
+                windowScores[w] = Double.isNaN(v) ? avg : v;
+            }
+
+            StreetData street = new StreetData();
+            street.setStreetId(way.getStreetId());
+            street.setStreetName(way.getStreetName());
+            street.setCoordinates(pts);
+            street.setAverageCrimeScore(avg);
+            street.setCrimePoints(near);
+
+            result.add(street);
+            resultWindowScores.add(windowScores);
+        }
+        return new ScoredStreets(result, resultWindowScores.toArray(new double[0][]));
+    }
+
+    /**
+     * Street View の平均と犯罪データの平均の平均（片方しか無ければその平均）。どちらも無ければ NaN。
+     */
+    private static double combineScores(double sumSv, int nSv, double sumCrime, int nCrime) {
+        if (nSv > 0 && nCrime > 0) {
+            return (sumSv / nSv + sumCrime / nCrime) / 2.0;
+        } else if (nSv > 0) {
+            return sumSv / nSv;
+        } else if (nCrime > 0) {
+            return sumCrime / nCrime;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * 時刻のある点はその時刻を含む時間帯にだけ、時刻の無い点はすべての時間帯に数える。
+     */
+    private static void addToWindows(List<TimeWindow> windows, CrimeData c, double[] sums, int[] counts) {
+        for (int w = 0; w < windows.size(); w++) {
+            if (c.getHour() == null || windows.get(w).contains(c.getHour())) {
+                sums[w] += c.getCrimeScore();
+                counts[w]++;
+            }
+        }
+    }
+
+    /**
+     * スコア計算済みの道路から時間帯レイヤーを作る。ジオメトリは共有し、時間帯ごとのスコアと色だけを配列で持つ。
+     * キャッシュ（時間帯スコアなし）の場合は全レイヤーが全時間帯のスコア・色と同じになる。
+     */
+    private StreetLayers buildLayers(ScoredStreets scored, List<TimeWindow> windows) {
+        List<StreetData> streets = scored.streets();
+        double[][] windowScores = scored.windowScores();
+        int k = windows.size();
+        int n = streets.size();
+        double[][] scores = new double[k][n];
+        String[][] colors = new String[k][n];
+        for (int i = 0; i < n; i++) {
+            StreetData s = streets.get(i);
+            for (int w = 0; w < k; w++) {
+                scores[w][i] = windowScores != null ? windowScores[i][w] : s.getAverageCrimeScore();
+                colors[w][i] = s.getColor();
+            }
+        }
+        if (windowScores != null) {
+            for (int w = 0; w < k; w++) {
+                colors[w] = scoreDistribution.colorsFor(scores[w]);
+            }
+        } else if (k > 0 && n > 0 && !identicalLayersLogged) {
+            identicalLayersLogged = true;
+            System.out.println("Streets: cached data has no per-window scores, all time windows show the same layer"
+                    + " (set herroute.streets.cache-enabled=false to score windows from the CSVs)");
+        }
+        return new StreetLayers(streets, windows, scores, colors);
+    }
+
     /**
      * Overpass が使えない環境用。classpath の data/cached_streets.json があれば返す。
      */
     private List<StreetData> loadCachedStreets() {
+        if (!cacheEnabled) {
+            return Collections.emptyList();
+        }
+        List<StreetData> list = readCachedStreetsFile();
+        if (!list.isEmpty()) {
+            System.out.println("Cached streets loaded: " + list.size() + " segments");
+            // キャッシュも同じ分布で色を付け直す（/api/streets/stats の閾値と表示の色を一致させる）
+            scoreDistribution.update(list);
+            scoreDistribution.assignColors(list);
+        }
+        return list;
+    }
+
+    private List<StreetData> readCachedStreetsFile() {
         try {
             ClassPathResource resource = new ClassPathResource("data/cached_streets.json");
             try (Reader r = new InputStreamReader(resource.getInputStream(), java.nio.charset.StandardCharsets.UTF_8)) {
                 List<StreetData> list = mapper.readValue(r, new TypeReference<List<StreetData>>() {});
-                if (list != null && !list.isEmpty()) {
-                    System.out.println("Cached streets loaded: " + list.size() + " segments");
-                    return list;
-                }
-                return Collections.emptyList();
+                return list != null ? list : Collections.emptyList();
             }
         } catch (Exception e) {
             System.err.println("Cached streets load failed: " + e.getMessage());
@@ -383,6 +586,26 @@ public class CrimeDataService {
         }
     }
 
+    /**
+     * 起動時のウォームアップ用。キャッシュを返す経路も Overpass も通らず、cached_streets.json の道路形状に対して
+     * 近傍の集計・連結・色分け・時間帯レイヤー作成をリクエスト時と同じコードで流す。
+     * 結果は捨て、分布（/api/streets/stats）やスナップショットは変えない。採点できた道路数を返す。
+     */
+    public int warmUpScoring(List<CrimeData> streetViewScores, List<CrimeData> crimeScores) {
+        ScoredStreets merged = mergeConnectedSegmentsByName(
+                scoreWays(readCachedStreetsFile(), streetViewScores, crimeScores, timeWindows));
+        double[] scores = new double[merged.streets().size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = merged.streets().get(i).getAverageCrimeScore();
+        }
+        scoreDistribution.colorsFor(scores);
+        StreetLayers layers = buildLayers(merged, timeWindows);
+        for (String window : layers.getWindows()) {
+            layers.getStreets(window);
+        }
+        return scores.length;
+    }
+
     private static final double POINT_EPS = 1e-5;
 
     private boolean samePoint(StreetData.Point a, StreetData.Point b) {
@@ -393,32 +616,48 @@ public class CrimeDataService {
 
     /**
      * 同じ道路名かつ端点が一致するセグメントを連結し、1本の折れ線にまとめる。
-     * 返却リストはマージ後の StreetData のリスト（スコアは連結したセグメント群の平均）。
+     * 返却はマージ後の道路のリスト（スコアは連結したセグメント群の平均、時間帯スコアも同様）。
      */
-    private List<StreetData> mergeConnectedSegmentsByName(List<StreetData> streets) {
-        if (streets == null || streets.isEmpty()) return streets;
-
-        Map<String, List<StreetData>> byName = new LinkedHashMap<>();
-        for (StreetData s : streets) {
+    private ScoredStreets mergeConnectedSegmentsByName(ScoredStreets scored) {
+        List<StreetData> streets = scored.streets();
+        if (streets == null || streets.isEmpty()) return scored;
+        double[][] windowScores = scored.windowScores();
+
+        Map<String, List<Integer>> byName = new LinkedHashMap<>();
+        for (int i = 0; i < streets.size(); i++) {
+            StreetData s = streets.get(i);
             String name = s.getStreetName() != null ? s.getStreetName() : "未命名の道路";
-            byName.computeIfAbsent(name, k -> new ArrayList<>()).add(s);
+            byName.computeIfAbsent(name, k -> new ArrayList<>()).add(i);
         }
 
         List<StreetData> merged = new ArrayList<>();
-        for (Map.Entry<String, List<StreetData>> e : byName.entrySet()) {
-            merged.addAll(mergeOneGroup(e.getKey(), e.getValue()));
+        List<double[]> mergedWindowScores = new ArrayList<>();
+        for (Map.Entry<String, List<Integer>> e : byName.entrySet()) {
+            List<Integer> idx = e.getValue();
+            List<StreetData> group = new ArrayList<>(idx.size());
+            double[][] groupWindowScores = windowScores != null ? new double[idx.size()][] : null;
+            for (int j = 0; j < idx.size(); j++) {
+                group.add(streets.get(idx.get(j)));
+                if (groupWindowScores != null) groupWindowScores[j] = windowScores[idx.get(j)];
+            }
+            ScoredStreets m = mergeOneGroup(e.getKey(), new ScoredStreets(group, groupWindowScores));
+            merged.addAll(m.streets());
+            if (m.windowScores() != null) mergedWindowScores.addAll(Arrays.asList(m.windowScores()));
         }
-        return merged;
+        return new ScoredStreets(merged,
+                windowScores != null ? mergedWindowScores.toArray(new double[0][]) : null);
     }
 
     /**
      * 同一道路名のセグメント群を、端点がつながる限り連結して複数の折れ線にまとめる。
      */
-    private List<StreetData> mergeOneGroup(String streetName, List<StreetData> group) {
-        if (group == null || group.isEmpty()) return Collections.emptyList();
-        if (group.size() == 1) return Collections.singletonList(group.get(0));
+    ScoredStreets mergeOneGroup(String streetName, ScoredStreets scored) {
+        List<StreetData> group = scored.streets();
+        double[][] groupWindowScores = scored.windowScores();
+        if (group.size() <= 1) return scored;
 
         List<StreetData> out = new ArrayList<>();
+        List<double[]> outWindowScores = new ArrayList<>();
         boolean[] used = new boolean[group.size()];
 
         for (int i = 0; i < group.size(); i++) {
@@ -426,6 +665,7 @@ public class CrimeDataService {
 
             List<StreetData.Point> chain = new ArrayList<>(group.get(i).getCoordinates());
             double scoreSum = group.get(i).getAverageCrimeScore();
+            double[] windowSums = groupWindowScores != null ? groupWindowScores[i].clone() : null;
             int count = 1;
             used[i] = true;
 
@@ -445,6 +685,7 @@ public class CrimeDataService {
                     if (samePoint(chainLast, segFirst)) {
                         for (int k = 1; k < pts.size(); k++) chain.add(pts.get(k));
                         scoreSum += seg.getAverageCrimeScore();
+                        addWindowScores(windowSums, groupWindowScores, j);
                         count++;
                         used[j] = true;
                         extended = true;
@@ -453,6 +694,7 @@ public class CrimeDataService {
                     if (samePoint(chainLast, segLast)) {
                         for (int k = pts.size() - 2; k >= 0; k--) chain.add(pts.get(k));
                         scoreSum += seg.getAverageCrimeScore();
+                        addWindowScores(windowSums, groupWindowScores, j);
                         count++;
                         used[j] = true;
                         extended = true;
@@ -461,6 +703,7 @@ public class CrimeDataService {
                     if (samePoint(chainFirst, segLast)) {
                         for (int k = pts.size() - 2; k >= 0; k--) chain.add(0, pts.get(k));
                         scoreSum += seg.getAverageCrimeScore();
+                        addWindowScores(windowSums, groupWindowScores, j);
                         count++;
                         used[j] = true;
                         extended = true;
@@ -469,6 +712,7 @@ public class CrimeDataService {
                     if (samePoint(chainFirst, segFirst)) {
                         for (int k = 1; k < pts.size(); k++) chain.add(0, pts.get(k));
                         scoreSum += seg.getAverageCrimeScore();
+                        addWindowScores(windowSums, groupWindowScores, j);
                         count++;
                         used[j] = true;
                         extended = true;
@@ -483,9 +727,18 @@ public class CrimeDataService {
             mergedStreet.setCoordinates(chain);
             mergedStreet.setAverageCrimeScore(scoreSum / count);
             out.add(mergedStreet);
+            if (windowSums != null) {
+                for (int w = 0; w < windowSums.length; w++) windowSums[w] /= count;
+                outWindowScores.add(windowSums);
+            }
         }
 
-        return out;
+        return new ScoredStreets(out, groupWindowScores != null ? outWindowScores.toArray(new double[0][]) : null);
+    }
+
+    private void addWindowScores(double[] windowSums, double[][] groupWindowScores, int j) {
+        if (windowSums == null) return;
+        for (int w = 0; w < windowSums.length; w++) windowSums[w] += groupWindowScores[j][w];
     }
 
     private double haversine(double lat1, double lon1, double lat2, double lon2) {
@@ -0,0 +1,168 @@
+package com.example.demo.service;
+
+/**
+ * スコアを固定幅のバケットに数え上げる、マージ可能な分位点スケッチ。
+ * Fenwick 木で累積件数を持つので、追加・削除・順位からの値の取得がいずれも O(log バケット数) で済む。
+ * 値はバケット幅の精度で丸められ、範囲外の値は両端のバケットに入る。
+ * 同じ範囲・バケット数のスケッチ同士は件数を足すだけでマージできる（タイル → 地域の集約用）。
+ */
+public class QuantileSketch {
+
+    public static final int DEFAULT_BUCKETS = 1024;
+
+    private final double min;
+    private final double max;
+    private final int buckets;
+    private final long[] counts;
+    private final long[] tree; // Fenwick 木（1 始まり）
+    private long total;
+
+    public QuantileSketch() {
+        this(0.0, 1.0, DEFAULT_BUCKETS);
+    }
+
+    public QuantileSketch(double min, double max, int buckets) {
+        if (!(max > min)) {
+            throw new IllegalArgumentException("max must be greater than min: " + min + ", " + max);
+        }
+        if (buckets < 1) {
+            throw new IllegalArgumentException("buckets must be positive: " + buckets);
+        }
+        this.min = min;
+        this.max = max;
+        this.buckets = buckets;
+        this.counts = new long[buckets];
+        this.tree = new long[buckets + 1];
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    public double getBucketWidth() {
+        return (max - min) / buckets;
+    }
+
+    public long count() {
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    /**
+     * 値が入るバケット番号（0 始まり）。NaN は先頭バケット扱い。
+     */
+    public int bucketOf(double value) {
+        if (Double.isNaN(value) || value <= min) return 0;
+        if (value >= max) return buckets - 1;
+        int b = (int) ((value - min) / (max - min) * buckets);
+        return Math.min(b, buckets - 1);
+    }
+
+    /**
+     * バケットの下端の値。
+     */
+    public double lowerBound(int bucket) {
+        return min + bucket * getBucketWidth();
+    }
+
+    public void add(double value) {
+        addToBucket(bucketOf(value), 1);
+    }
+
+    /**
+     * 値を 1 件取り除く。そのバケットが空なら何もせず false を返す。
+     */
+    public boolean remove(double value) {
+        int b = bucketOf(value);
+        if (counts[b] == 0) return false;
+        addToBucket(b, -1);
+        return true;
+    }
+
+    /**
+     * 昇順に並べたときの rank 番目（0 始まり）の値が入るバケット番号。空なら -1。
+     */
+    public int bucketAtRank(long rank) {
+        if (total == 0) return -1;
+        long remaining = Math.max(0, Math.min(rank, total - 1));
+        int pos = 0;
+        for (int step = Integer.highestOneBit(buckets); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= buckets && tree[next] <= remaining) {
+                pos = next;
+                remaining -= tree[next];
+            }
+        }
+        return pos; // 1 始まりの pos + 1 が該当バケット → 0 始まりでは pos
+    }
+
+    /**
+     * 分位点 q (0..1) のバケット番号。元の実装と同じく floor(q * (n - 1)) 番目を使う。空なら -1。
+     */
+    public int bucketAtQuantile(double q) {
+        if (total == 0) return -1;
+        return bucketAtRank((long) Math.floor(q * (total - 1)));
+    }
+
+    /**
+     * 分位点 q (0..1) の値（バケット下端）。空なら NaN。
+     */
+    public double quantile(double q) {
+        int b = bucketAtQuantile(q);
+        return b < 0 ? Double.NaN : lowerBound(b);
+    }
+
+    /**
+     * 別のスケッチの件数をこのスケッチに足し込む。範囲・バケット数が同じである必要がある。
+     */
+    public void merge(QuantileSketch other) {
+        if (other.buckets != buckets || other.min != min || other.max != max) {
+            throw new IllegalArgumentException("incompatible sketch");
+        }
+        for (int b = 0; b < buckets; b++) {
+            counts[b] += other.counts[b];
+        }
+        total += other.total;
+        rebuildTree();
+    }
+
+    /**
+     * 細かいバケットを bins 個にまとめたヒストグラム（表示・統計用）。
+     */
+    public long[] histogram(int bins) {
+        long[] out = new long[bins];
+        for (int b = 0; b < buckets; b++) {
+            out[(int) ((long) b * bins / buckets)] += counts[b];
+        }
+        return out;
+    }
+
+    private void addToBucket(int bucket, long delta) {
+        counts[bucket] += delta;
+        total += delta;
+        for (int i = bucket + 1; i <= buckets; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private void rebuildTree() {
+        for (int i = 1; i <= buckets; i++) {
+            tree[i] = counts[i - 1];
+        }
+        for (int i = 1; i <= buckets; i++) {
+            int parent = i + (i & -i);
+            if (parent <= buckets) tree[parent] += tree[i];
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CrimeData;
+import com.example.demo.model.StreetData;
+
+import java.util.*;
+
+/**
+ * 時間帯ごとの道路レイヤー。ジオメトリ（StreetData）は全レイヤーで共有し、
+ * レイヤーごとにはスコアと色の配列だけを持つ（添字は streets と同じ）。
+ */
+public class StreetLayers {
+
+    private final List<StreetData> streets;
+    private final List<TimeWindow> windows;
+    private final List<String> windowNames;
+    private final double[][] scores;
+    private final String[][] colors;
+
+    public StreetLayers(List<StreetData> streets, List<TimeWindow> windows, double[][] scores, String[][] colors) {
+        this.streets = Collections.unmodifiableList(new ArrayList<>(streets));
+        this.windows = List.copyOf(windows);
+        List<String> names = new ArrayList<>(windows.size());
+        for (TimeWindow tw : windows) {
+            names.add(tw.name());
+        }
+        this.windowNames = Collections.unmodifiableList(names);
+        this.scores = scores;
+        this.colors = colors;
+    }
+
+    public List<String> getWindows() {
+        return windowNames;
+    }
+
+    public boolean hasWindow(String window) {
+        return windowNames.contains(window);
+    }
+
+    /**
+     * 時間帯のレイヤー。window が null なら全時間帯のスコア（従来の /api/streets）。
+     * 時間帯別の一覧は呼ばれるたびに配列から組み立てる（座標リストは共有し、道路ごとのコピーは保持しない）。
+     */
+    public List<StreetData> getStreets(String window) {
+        if (window == null) return streets;
+        int w = windowNames.indexOf(window);
+        if (w < 0) throw new IllegalArgumentException("Unknown window: " + window);
+        return buildView(w);
+    }
+
+    private List<StreetData> buildView(int w) {
+        TimeWindow window = windows.get(w);
+        List<StreetData> view = new ArrayList<>(streets.size());
+        for (int i = 0; i < streets.size(); i++) {
+            StreetData base = streets.get(i);
+            StreetData s = new StreetData();
+            s.setStreetId(base.getStreetId());
+            s.setStreetName(base.getStreetName());
+            s.setCoordinates(base.getCoordinates());
+            s.setCrimePoints(pointsIn(base.getCrimePoints(), window));
+            s.setAverageCrimeScore(scores[w][i]);
+            s.setColor(colors[w][i]);
+            view.add(s);
+        }
+        return Collections.unmodifiableList(view);
+    }
+
+    /**
+     * 時間帯に入る点だけを返す（時刻の無い点はスコア計算と同じくすべての時間帯に含める）。
+     * 外れる点が無ければ元のリストをそのまま返す。
+     */
+    static List<CrimeData> pointsIn(List<CrimeData> points, TimeWindow window) {
+        if (points == null) return null;
+        List<CrimeData> out = null;
+        for (int i = 0; i < points.size(); i++) {
+            CrimeData c = points.get(i);
+            boolean keep = c.getHour() == null || window.contains(c.getHour());
+            if (!keep && out == null) {
+                out = new ArrayList<>(points.subList(0, i));
+            } else if (keep && out != null) {
+                out.add(c);
+            }
+        }
+        return out != null ? out : points;
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.demo.service;
+
+import com.example.demo.model.StreetData;
+import com.example.demo.model.StreetScoreStats;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * 道路スコアの分布を地域・タイルごとの {@link QuantileSketch} で保持し、パーセンタイルの色分けを行う。
+ * 道路ID ごとに前回のスコアを覚えているので、再計算のたびに全件ソートせず、
+ * 変わった道路だけを O(log n) でスケッチに反映できる。
+ * スケッチの範囲は [0, 1] から始め、範囲外のスコア（overall_discomfort は -5〜5）が来たら広げて作り直す。
+ */
+@Service
+public class StreetScoreDistribution {
+
+    /** 色分けの境目（上位20%: 赤, 次の20%: オレンジ, ...） */
+    private static final double[] CUTS = {0.8, 0.6, 0.4, 0.2};
+    private static final String[] CUT_NAMES = {"red", "orange", "yellow", "lightGreen"};
+    private static final String[] COLORS = {
+            "#b22222",  // 濃い赤（危険度高）
+            "#e67e00",  // 濃いオレンジ
+            "#c9a227",  // 濃い黄
+            "#2e8b57",  // 濃い黄緑
+            "#006400"   // 濃い緑（危険度低）
+    };
+    private static final String SINGLE_COLOR = "#c9a227";
+
+    private static final String REGION = "seattle";
+    private static final int TILE_ZOOM = 15;
+    private static final int HISTOGRAM_BINS = 20;
+
+    private double rangeMin = 0.0;
+    private double rangeMax = 1.0;
+    private QuantileSketch regionSketch = newSketch(rangeMin, rangeMax);
+    private final Map<String, QuantileSketch> tileSketches = new HashMap<>();
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private record Entry(String tile, double score) {
+    }
+
+    /**
+     * 道路リスト全体をスケッチに同期する。スコアが変わった道路だけを差し替え、リストに無い道路は取り除く。
+     */
+    public synchronized void update(List<StreetData> streets) {
+        widenRange(streets);
+        Set<String> seen = new HashSet<>();
+        for (StreetData s : streets) {
+            if (s.getStreetId() == null) continue;
+            seen.add(s.getStreetId());
+            upsert(s);
+        }
+        entries.keySet().removeIf(id -> {
+            if (seen.contains(id)) return false;
+            removeEntry(entries.get(id));
+            return true;
+        });
+    }
+
+    /**
+     * 現在の地域の閾値で色分けする。閾値の計算は 1 回だけで、各道路はバケット番号の比較のみ。
+     */
+    public synchronized void assignColors(List<StreetData> streets) {
+        int[] cuts = thresholdBuckets(regionSketch);
+        for (StreetData s : streets) {
+            colorStreet(s, cuts);
+        }
+    }
+
+    /**
+     * 地域のスケッチとは別に、与えたスコア配列だけの分布で色分けする（時間帯レイヤー用）。
+     */
+    public String[] colorsFor(double[] scores) {
+        double min = 0.0;
+        double max = 1.0;
+        for (double v : scores) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        QuantileSketch sketch = newSketch(min, max);
+        for (double v : scores) {
+            sketch.add(v);
+        }
+        int[] cuts = thresholdBuckets(sketch);
+        String[] out = new String[scores.length];
+        for (int i = 0; i < scores.length; i++) {
+            out[i] = colorOf(sketch.bucketOf(scores[i]), cuts);
+        }
+        return out;
+    }
+
+    /**
+     * スコア分布と閾値。tile を指定するとそのタイル単体の分布を返し、未知のタイルなら null。
+     */
+    public synchronized StreetScoreStats stats(String tile) {
+        QuantileSketch sketch = regionSketch;
+        if (tile != null) {
+            sketch = tileSketches.get(tile);
+            if (sketch == null) return null;
+        }
+
+        StreetScoreStats stats = new StreetScoreStats();
+        stats.setRegion(REGION);
+        stats.setTile(tile);
+        stats.setCount(sketch.count());
+        stats.setRangeMin(sketch.getMin());
+        stats.setRangeMax(sketch.getMax());
+
+        Map<String, Double> thresholds = new LinkedHashMap<>();
+        int[] cuts = thresholdBuckets(sketch);
+        if (cuts != null) {
+            for (int i = 0; i < CUTS.length; i++) {
+                thresholds.put(CUT_NAMES[i], sketch.lowerBound(cuts[i]));
+            }
+        }
+        stats.setThresholds(thresholds);
+        stats.setThresholdErrorBound(sketch.getBucketWidth());
+
+        List<Long> histogram = new ArrayList<>(HISTOGRAM_BINS);
+        for (long c : sketch.histogram(HISTOGRAM_BINS)) {
+            histogram.add(c);
+        }
+        stats.setHistogram(histogram);
+        stats.setBucketWidth(sketch.getBucketWidth() * sketch.getBuckets() / HISTOGRAM_BINS);
+
+        if (tile == null) {
+            Map<String, Long> tiles = new TreeMap<>();
+            tileSketches.forEach((key, s) -> tiles.put(key, s.count()));
+            stats.setTiles(tiles);
+        }
+        return stats;
+    }
+
+    private void upsert(StreetData s) {
+        String tile = tileOf(s);
+        double score = s.getAverageCrimeScore();
+        Entry old = entries.get(s.getStreetId());
+        if (old != null) {
+            if (old.score() == score && Objects.equals(old.tile(), tile)) return;
+            removeEntry(old);
+        }
+        regionSketch.add(score);
+        tileSketches.computeIfAbsent(tile, k -> newSketch(rangeMin, rangeMax)).add(score);
+        entries.put(s.getStreetId(), new Entry(tile, score));
+    }
+
+    /**
+     * 新しいスコアが今の範囲に収まらなければ範囲を広げ、既存の道路をすべて入れ直す（まれにしか起きない）。
+     */
+    private void widenRange(List<StreetData> streets) {
+        double min = rangeMin;
+        double max = rangeMax;
+        for (StreetData s : streets) {
+            double v = s.getAverageCrimeScore();
+            if (Double.isNaN(v)) continue;
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        if (min == rangeMin && max == rangeMax) return;
+        rangeMin = min;
+        rangeMax = max;
+        regionSketch = newSketch(rangeMin, rangeMax);
+        tileSketches.clear();
+        for (Entry e : entries.values()) {
+            regionSketch.add(e.score());
+            tileSketches.computeIfAbsent(e.tile(), k -> newSketch(rangeMin, rangeMax)).add(e.score());
+        }
+    }
+
+    private static QuantileSketch newSketch(double min, double max) {
+        return new QuantileSketch(min, max, QuantileSketch.DEFAULT_BUCKETS);
+    }
+
+    private void removeEntry(Entry e) {
+        regionSketch.remove(e.score());
+        QuantileSketch t = tileSketches.get(e.tile());
+        if (t != null) {
+            t.remove(e.score());
+            if (t.isEmpty()) tileSketches.remove(e.tile());
+        }
+    }
+
+    /**
+     * 各境目のバケット番号。件数が 2 未満なら null（1件だけのときは中間色にする）。
+     */
+    private int[] thresholdBuckets(QuantileSketch sketch) {
+        if (sketch.count() < 2) return null;
+        int[] cuts = new int[CUTS.length];
+        for (int i = 0; i < CUTS.length; i++) {
+            cuts[i] = sketch.bucketAtQuantile(CUTS[i]);
+        }
+        return cuts;
+    }
+
+    private void colorStreet(StreetData s, int[] cuts) {
+        s.setColor(colorOf(regionSketch.bucketOf(s.getAverageCrimeScore()), cuts));
+    }
+
+    /**
+     * バケット番号どうしで比べる。境目の値と同じバケットに入るスコアは、境目よりわずかに小さくても上の色になる
+     * （ずれは最大でバケット幅 1 つ分。/api/streets/stats の thresholdErrorBound）。
+     */
+    private String colorOf(int bucket, int[] cuts) {
+        if (cuts == null) return SINGLE_COLOR;
+        for (int i = 0; i < cuts.length; i++) {
+            if (bucket >= cuts[i]) return COLORS[i];
+        }
+        return COLORS[COLORS.length - 1];
+    }
+
+    /**
+     * 道路の中央の点が入る地図タイル（z/x/y、Web メルカトル）。
+     */
+    private String tileOf(StreetData s) {
+        List<StreetData.Point> pts = s.getCoordinates();
+        if (pts == null || pts.isEmpty()) return TILE_ZOOM + "/-/-";
+        StreetData.Point p = pts.get(pts.size() / 2);
+        int n = 1 << TILE_ZOOM;
+        int x = (int) Math.floor((p.getLongitude() + 180.0) / 360.0 * n);
+        double latRad = Math.toRadians(p.getLatitude());
+        int y = (int) Math.floor((1.0 - Math.log(Math.tan(latRad) + 1.0 / Math.cos(latRad)) / Math.PI) / 2.0 * n);
+        x = Math.max(0, Math.min(n - 1, x));
+        y = Math.max(0, Math.min(n - 1, y));
+        return TILE_ZOOM + "/" + x + "/" + y;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 時間帯レイヤーの定義。[startHour, endHour) を含み、start > end なら日付をまたぐ（例: night=18-6）。
+ */
+public record TimeWindow(String name, int startHour, int endHour) {
+
+    public boolean contains(int hour) {
+        if (startHour <= endHour) {
+            return hour >= startHour && hour < endHour;
+        }
+        return hour >= startHour || hour < endHour;
+    }
+
+    /**
+     * "day=6-18,night=18-6" 形式の設定を読む。形式・時刻が不正なもの、名前が空・重複しているもの、
+     * 開始と終了が同じものは IllegalArgumentException。
+     */
+    public static List<TimeWindow> parse(String spec) {
+        List<TimeWindow> windows = new ArrayList<>();
+        if (spec == null || spec.isBlank()) return windows;
+        Set<String> names = new HashSet<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            String[] range = kv.length == 2 ? kv[1].trim().split("-") : new String[0];
+            if (range.length != 2) {
+                throw new IllegalArgumentException("Invalid time window: " + part);
+            }
+            String name = kv[0].trim();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Time window name is empty: " + part);
+            }
+            if (!names.add(name)) {
+                throw new IllegalArgumentException("Duplicate time window name: " + name);
+            }
+            int start;
+            int end;
+            try {
+                start = Integer.parseInt(range[0].trim());
+                end = Integer.parseInt(range[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid time window hours: " + part, e);
+            }
+            if (start < 0 || start > 24 || end < 0 || end > 24 || start == end) {
+                throw new IllegalArgumentException("Invalid time window hours: " + part);
+            }
+            windows.add(new TimeWindow(name, start, end));
+        }
+        return windows;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.service;
+
+import com.example.demo.model.StreetData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrimeDataServiceTests {
+
+	private static StreetData.Point point(double lat, double lon) {
+		StreetData.Point p = new StreetData.Point();
+		p.setLatitude(lat);
+		p.setLongitude(lon);
+		return p;
+	}
+
+	private static StreetData segment(String id, StreetData.Point from, StreetData.Point to, double score) {
+		StreetData s = new StreetData();
+		s.setStreetId(id);
+		s.setStreetName("Pike St");
+		s.setCoordinates(List.of(from, to));
+		s.setAverageCrimeScore(score);
+		return s;
+	}
+
+	@Test
+	void parseHourReadsCommonFormats() {
+		assertEquals(21, CrimeDataService.parseHour("21"));
+		assertEquals(21, CrimeDataService.parseHour("21:30"));
+		assertEquals(21, CrimeDataService.parseHour("2024-05-01T21:30:00"));
+		assertEquals(21, CrimeDataService.parseHour("2024-05-01 21:30"));
+		assertEquals(21, CrimeDataService.parseHour("21.0"));
+		assertEquals(0, CrimeDataService.parseHour(" 0 "));
+	}
+
+	@Test
+	void parseHourRejectsMissingOrInvalidValues() {
+		assertNull(CrimeDataService.parseHour("2024-05-01"));
+		assertNull(CrimeDataService.parseHour("24"));
+		assertNull(CrimeDataService.parseHour("-1"));
+		assertNull(CrimeDataService.parseHour("NaN"));
+		assertNull(CrimeDataService.parseHour("evening"));
+		assertNull(CrimeDataService.parseHour(""));
+		assertNull(CrimeDataService.parseHour(null));
+	}
+
+	@Test
+	void mergeAveragesWindowScoresOfConnectedSegments() {
+		StreetData.Point a = point(47.6000, -122.3300);
+		StreetData.Point b = point(47.6010, -122.3300);
+		StreetData.Point c = point(47.6020, -122.3300);
+		StreetData.Point d = point(47.6030, -122.3300);
+		// 2 本目は向きが逆（c→b）。端点がつながるので 3 本とも 1 本にまとまる
+		CrimeDataService.ScoredStreets group = new CrimeDataService.ScoredStreets(
+				List.of(segment("1", a, b, 0.2), segment("2", c, b, 0.4), segment("3", c, d, 0.6)),
+				new double[][]{{0.1, 0.3}, {0.2, 0.9}, {0.6, 0.6}});
+
+		CrimeDataService.ScoredStreets merged = new CrimeDataService().mergeOneGroup("Pike St", group);
+
+		assertEquals(1, merged.streets().size());
+		StreetData m = merged.streets().get(0);
+		assertEquals(List.of(a, b, c, d), m.getCoordinates());
+		assertEquals(0.4, m.getAverageCrimeScore(), 1e-9);
+		assertArrayEquals(new double[]{0.3, 0.6}, merged.windowScores()[0], 1e-9);
+	}
+
+	@Test
+	void mergeKeepsDisconnectedSegmentsApart() {
+		StreetData.Point a = point(47.6000, -122.3300);
+		StreetData.Point b = point(47.6010, -122.3300);
+		StreetData.Point c = point(47.7000, -122.3300);
+		StreetData.Point d = point(47.7010, -122.3300);
+		CrimeDataService.ScoredStreets group = new CrimeDataService.ScoredStreets(
+				List.of(segment("1", a, b, 0.2), segment("2", c, d, 0.8)),
+				new double[][]{{0.1, 0.3}, {0.7, 0.9}});
+
+		CrimeDataService.ScoredStreets merged = new CrimeDataService().mergeOneGroup("Pike St", group);
+
+		assertEquals(2, merged.streets().size());
+		assertArrayEquals(new double[]{0.1, 0.3}, merged.windowScores()[0], 1e-9);
+		assertArrayEquals(new double[]{0.7, 0.9}, merged.windowScores()[1], 1e-9);
+	}
+}
@@ -0,0 +1,41 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTests {
+
+	@Test
+	void quantileMatchesSortedRank() {
+		QuantileSketch sketch = new QuantileSketch(0.0, 1.0, 100);
+		for (int i = 0; i < 100; i++) {
+			sketch.add(i / 100.0);
+		}
+		assertEquals(100, sketch.count());
+		// floor(0.8 * 99) = 79 番目 → 0.79
+		assertEquals(0.79, sketch.quantile(0.8), 1e-9);
+		assertEquals(0.0, sketch.quantile(0.0), 1e-9);
+	}
+
+	@Test
+	void removeAndMerge() {
+		QuantileSketch a = new QuantileSketch();
+		QuantileSketch b = new QuantileSketch();
+		a.add(0.1);
+		a.add(0.9);
+		b.add(0.5);
+		assertTrue(a.remove(0.9));
+		assertFalse(a.remove(0.9));
+		a.merge(b);
+		assertEquals(2, a.count());
+		assertEquals(a.bucketOf(0.5), a.bucketAtRank(1));
+	}
+
+	@Test
+	void emptySketchHasNoQuantile() {
+		QuantileSketch sketch = new QuantileSketch();
+		assertEquals(-1, sketch.bucketAtQuantile(0.5));
+		assertTrue(Double.isNaN(sketch.quantile(0.5)));
+	}
+}
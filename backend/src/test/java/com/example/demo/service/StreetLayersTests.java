@@ -0,0 +1,58 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CrimeData;
+import com.example.demo.model.StreetData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreetLayersTests {
+
+	private static CrimeData crime(Integer hour) {
+		CrimeData c = new CrimeData();
+		c.setCrimeScore(0.5);
+		c.setHour(hour);
+		return c;
+	}
+
+	private static StreetLayers layers(List<CrimeData> points) {
+		StreetData s = new StreetData();
+		s.setStreetId("1");
+		s.setStreetName("Pike St");
+		s.setAverageCrimeScore(0.5);
+		s.setColor("#c9a227");
+		s.setCrimePoints(points);
+		return new StreetLayers(List.of(s),
+				List.of(new TimeWindow("day", 6, 18), new TimeWindow("night", 18, 6)),
+				new double[][]{{0.2}, {0.8}},
+				new String[][]{{"#006400"}, {"#b22222"}});
+	}
+
+	@Test
+	void windowViewsUseLayerScoresAndColors() {
+		StreetLayers layers = layers(List.of());
+		StreetData night = layers.getStreets("night").get(0);
+		assertEquals(0.8, night.getAverageCrimeScore());
+		assertEquals("#b22222", night.getColor());
+		assertEquals(0.2, layers.getStreets("day").get(0).getAverageCrimeScore());
+
+		StreetData all = layers.getStreets(null).get(0);
+		assertEquals(0.5, all.getAverageCrimeScore());
+		assertEquals("#c9a227", all.getColor());
+		assertThrows(IllegalArgumentException.class, () -> layers.getStreets("evening"));
+	}
+
+	@Test
+	void windowViewsOnlyListPointsInTheWindow() {
+		CrimeData morning = crime(9);
+		CrimeData lateNight = crime(23);
+		CrimeData unknown = crime(null);
+		StreetLayers layers = layers(List.of(morning, lateNight, unknown));
+
+		assertEquals(List.of(morning, unknown), layers.getStreets("day").get(0).getCrimePoints());
+		assertEquals(List.of(lateNight, unknown), layers.getStreets("night").get(0).getCrimePoints());
+		assertEquals(3, layers.getStreets(null).get(0).getCrimePoints().size());
+	}
+}
@@ -0,0 +1,155 @@
+package com.example.demo.service;
+
+import com.example.demo.model.StreetData;
+import com.example.demo.model.StreetScoreStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreetScoreDistributionTests {
+
+	/** 元の実装（全件ソート）と同じ色分け */
+	private static String oldColor(List<Double> all, double v) {
+		List<Double> scores = new ArrayList<>(all);
+		Collections.sort(scores);
+		int n = scores.size();
+		if (n == 1) return "#c9a227";
+		if (v >= scores.get((int) Math.floor(0.8 * (n - 1)))) return "#b22222";
+		if (v >= scores.get((int) Math.floor(0.6 * (n - 1)))) return "#e67e00";
+		if (v >= scores.get((int) Math.floor(0.4 * (n - 1)))) return "#c9a227";
+		if (v >= scores.get((int) Math.floor(0.2 * (n - 1)))) return "#2e8b57";
+		return "#006400";
+	}
+
+	private static StreetData street(String id, double score, double lon) {
+		StreetData s = new StreetData();
+		s.setStreetId(id);
+		s.setAverageCrimeScore(score);
+		StreetData.Point p = new StreetData.Point();
+		p.setLatitude(47.6062);
+		p.setLongitude(lon);
+		s.setCoordinates(List.of(p));
+		return s;
+	}
+
+	private static void assertMatchesOldColors(List<StreetData> streets) {
+		List<Double> scores = new ArrayList<>();
+		for (StreetData s : streets) scores.add(s.getAverageCrimeScore());
+		for (StreetData s : streets) {
+			assertEquals(oldColor(scores, s.getAverageCrimeScore()), s.getColor(),
+					"score " + s.getAverageCrimeScore());
+		}
+	}
+
+	@Test
+	void colorsMatchSortedPercentiles() {
+		Random random = new Random(7);
+		List<StreetData> streets = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			// 0.01 刻みならバケット幅（約 0.001）より粗いので、丸めの影響なく元の実装と一致する
+			// （境目と同じバケットに入る場合は scoreJustBelowACutInTheSameBucketGetsTheHigherColor）
+			streets.add(street("s" + i, random.nextInt(101) / 100.0, -122.33));
+		}
+		StreetScoreDistribution d = new StreetScoreDistribution();
+		d.update(streets);
+		d.assignColors(streets);
+		assertMatchesOldColors(streets);
+	}
+
+	@Test
+	void outOfRangeScoresAreColoredLikeTheSort() {
+		// overall_discomfort は -5〜5 の値になる
+		List<StreetData> streets = new ArrayList<>();
+		double[] scores = {-3, -1.2, 0.5, 2.1, 4};
+		for (int i = 0; i < scores.length; i++) {
+			streets.add(street("s" + i, scores[i], -122.33));
+		}
+		StreetScoreDistribution d = new StreetScoreDistribution();
+		d.update(streets);
+		d.assignColors(streets);
+		assertMatchesOldColors(streets);
+		assertEquals("#2e8b57", streets.get(0).getColor());
+
+		String[] layer = d.colorsFor(scores);
+		for (int i = 0; i < scores.length; i++) {
+			assertEquals(streets.get(i).getColor(), layer[i]);
+		}
+	}
+
+	@Test
+	void widenedRangeKeepsEarlierStreets() {
+		StreetScoreDistribution d = new StreetScoreDistribution();
+		d.update(List.of(street("a", 0.2, -122.33), street("b", 0.8, -122.33)));
+		List<StreetData> streets = List.of(street("a", 0.2, -122.33), street("b", 0.8, -122.33),
+				street("c", 4.0, -122.33), street("d", -2.0, -122.33));
+		d.update(streets);
+		d.assignColors(streets);
+		assertEquals(4, d.stats(null).getCount());
+		assertMatchesOldColors(streets);
+	}
+
+	@Test
+	void updateReplacesChangedAndRemovesMissingStreets() {
+		StreetScoreDistribution d = new StreetScoreDistribution();
+		d.update(List.of(street("a", 0.1, -122.33), street("b", 0.5, -122.33), street("c", 0.9, -122.25)));
+		StreetScoreStats stats = d.stats(null);
+		assertEquals(3, stats.getCount());
+		assertEquals(2, stats.getTiles().size());
+
+		// a のスコアが変わり、c が消えた
+		d.update(List.of(street("a", 0.7, -122.33), street("b", 0.5, -122.33)));
+		stats = d.stats(null);
+		assertEquals(2, stats.getCount());
+		assertEquals(1, stats.getTiles().size());
+		long total = 0;
+		for (long c : stats.getHistogram()) total += c;
+		assertEquals(2, total);
+
+		String tile = stats.getTiles().keySet().iterator().next();
+		assertEquals(2, d.stats(tile).getCount());
+		assertNull(d.stats("15/0/0"));
+	}
+
+	@Test
+	void scoreJustBelowACutInTheSameBucketGetsTheHigherColor() {
+		// 11 件で 60% の境目は 7 番目（0 始まり 6）= 0.4。0.3998 は 0.4 と同じバケット、0.399 は一つ下のバケット
+		double[] scores = {0.05, 0.1, 0.15, 0.2, 0.3, 0.3998, 0.4, 0.45, 0.6, 0.7, 0.9};
+		List<StreetData> streets = new ArrayList<>();
+		for (int i = 0; i < scores.length; i++) {
+			streets.add(street("s" + i, scores[i], -122.33));
+		}
+		StreetScoreDistribution d = new StreetScoreDistribution();
+		d.update(streets);
+		d.assignColors(streets);
+
+		StreetScoreStats stats = d.stats(null);
+		double threshold = stats.getThresholds().get("orange");
+		double bound = stats.getThresholdErrorBound();
+		// 閾値はバケットの下端: 実際の分位点 0.4 は [threshold, threshold + bound) にある
+		assertTrue(threshold <= 0.4 && 0.4 < threshold + bound, "threshold " + threshold);
+		assertTrue(threshold < 0.4, "reported threshold is the bucket's lower edge");
+
+		// 全件ソートなら 0.3998 < 0.4 なので黄色だが、スケッチでは境目と同じバケットなのでオレンジ（ずれは bound 以内）
+		assertEquals("#c9a227", oldColor(Arrays.stream(scores).boxed().toList(), 0.3998));
+		assertEquals("#e67e00", streets.get(5).getColor());
+		assertTrue(0.4 - 0.3998 < bound);
+		assertEquals("#e67e00", streets.get(6).getColor());
+
+		// 境目のバケットより下なら元の実装と同じ
+		streets.set(5, street("s5", 0.399, -122.33));
+		d.update(streets);
+		d.assignColors(streets);
+		assertEquals("#c9a227", streets.get(5).getColor());
+	}
+
+	@Test
+	void singleStreetGetsMiddleColor() {
+		StreetScoreDistribution d = new StreetScoreDistribution();
+		List<StreetData> streets = List.of(street("a", 0.3, -122.33));
+		d.update(streets);
+		d.assignColors(streets);
+		assertEquals("#c9a227", streets.get(0).getColor());
+	}
+}
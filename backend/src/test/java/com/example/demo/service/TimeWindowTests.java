@@ -0,0 +1,56 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeWindowTests {
+
+	@Test
+	void containsWrapsAroundMidnight() {
+		TimeWindow night = new TimeWindow("night", 18, 6);
+		assertTrue(night.contains(18));
+		assertTrue(night.contains(23));
+		assertTrue(night.contains(0));
+		assertTrue(night.contains(5));
+		assertFalse(night.contains(6));
+		assertFalse(night.contains(12));
+		assertFalse(night.contains(17));
+	}
+
+	@Test
+	void containsWithinOneDay() {
+		TimeWindow day = new TimeWindow("day", 6, 18);
+		assertTrue(day.contains(6));
+		assertTrue(day.contains(17));
+		assertFalse(day.contains(18));
+		assertFalse(day.contains(5));
+	}
+
+	@Test
+	void parseReadsNamesAndHours() {
+		List<TimeWindow> windows = TimeWindow.parse(" day = 6-18 , night=18-6");
+		assertEquals(List.of(new TimeWindow("day", 6, 18), new TimeWindow("night", 18, 6)), windows);
+		assertTrue(TimeWindow.parse("").isEmpty());
+		assertTrue(TimeWindow.parse(null).isEmpty());
+	}
+
+	@Test
+	void parseRejectsInvalidSpecs() {
+		for (String spec : new String[]{
+				"day",              // 範囲が無い
+				"day=6",            // 終わりが無い
+				"day=6-18-20",
+				"day=a-18",         // 数字でない
+				"day=6-25",         // 範囲外
+				"day=-1-6",
+				"day=6-6",          // 開始と終了が同じ
+				"=6-18",            // 名前が空
+				"day=6-18,day=18-6" // 名前が重複
+		}) {
+			assertThrows(IllegalArgumentException.class, () -> TimeWindow.parse(spec), spec);
+		}
+	}
+}
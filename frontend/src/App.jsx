@@ -19,21 +19,37 @@ function App() {
       typeof window !== "undefined" && window.__API_BASE_URL__ != null
         ? String(window.__API_BASE_URL__).replace(/\/$/, "")
         : (import.meta.env.VITE_API_BASE_URL ?? (import.meta.env.DEV ? "http://localhost:8080" : ""));
-    const url = apiBaseUrl ? `${apiBaseUrl}/api/streets` : "/api/streets";
-    fetch(url)
+    // 昼/夜トグルに合わせて、その時間帯のレイヤーを取得する。
+    // 時間帯名はバックエンドの herroute.time-windows で変えられるので、400（未定義の時間帯）なら時間帯なしで取り直す。
+    const timeWindow = darkMode ? "night" : "day";
+    const toUrl = (path) => (apiBaseUrl ? `${apiBaseUrl}${path}` : path);
+    const url = toUrl(`/api/streets?window=${timeWindow}`);
+    // トグルを素早く切り替えたとき、古い応答で新しいレイヤーを上書きしないように前のリクエストを中断する
+    const controller = new AbortController();
+    fetch(url, { signal: controller.signal })
       .then((res) => {
-        if (!res.ok) throw new Error(`API ${res.status}: ${url}`);
+        if (res.status === 400) {
+          console.warn(`Time window "${timeWindow}" is not configured; loading all-day layer`);
+          return fetch(toUrl("/api/streets"), { signal: controller.signal });
+        }
+        return res;
+      })
+      .then((res) => {
+        if (!res.ok) throw new Error(`API ${res.status}: ${res.url}`);
         return res.json();
       })
       .then((data) => {
+        if (controller.signal.aborted) return;
         console.log("Street data:", data?.length ?? 0, "segments");
         setStreets(Array.isArray(data) ? data : []);
       })
       .catch((err) => {
+        if (err.name === "AbortError") return;
         console.error("Error fetching street data:", err);
         setStreets([]);
       });
-  }, []);
+    return () => controller.abort();
+  }, [darkMode]);
 
   const handleSearch = async (e) => {
     if (e.key === "Enter") {